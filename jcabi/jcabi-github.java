@@ -24,8 +24,13 @@
 // interface
 public interface Request {
 
+    RequestURI uri();
+    Request header(String name, Object value);
+    Collection<Map.Entry<String, String>> headers();
     Request method(String method);
     Response fetch() throws IOException;
+    CompletableFuture<Response> fetchAsync();
+    CompletableFuture<Response> fetchAsync(Executor executor);
 }
 
 // interface
@@ -155,12 +160,34 @@ public interface Repo extends JsonReadable, JsonPatchable, Comparable<Repo> {
          */
         private final transient SmartJson jsn;
         /*
-         * Public ctor.
+         * Public ctor, every property is read from a fresh JSON.
          * @param rep Repo
          */
         public Smart(final Repo rep) {
+            this(rep, 0L);
+        }
+        /*
+         * Public ctor, in snapshot mode.
+         *   ex. new Repo.Smart(repo, 60000L): one fetch per minute, however many properties are read
+         * @param rep Repo
+         * @param window How long a fetched JSON is used, in milliseconds
+         */
+        public Smart(final Repo rep, final long window) {
             this.repo = rep;
-            this.jsn = new SmartJson(rep);       // use SmartJson to read additional field
+            this.jsn = new SmartJson(rep, window); // use SmartJson to read additional field
+        }
+        /*
+         * Drop the snapshot, the next property will be read from a fresh JSON.
+         */
+        public void refresh() {
+            this.jsn.refresh();
+        }
+        /*
+         * Counters of the snapshot, ex. "fetches=1, saved=9".
+         * @return Text
+         */
+        public String stats() {
+            return this.jsn.stats();
         }
         /*
          * Get its description.
@@ -179,8 +206,8 @@ public interface Repo extends JsonReadable, JsonPatchable, Comparable<Repo> {
         public Issues issues() {
             return this.repo.issues();
         }
-        public JsonObjectjson() throws IOException {
-            return this.repo.json();
+        public JsonObject json() throws IOException {
+            return this.jsn.json();
         }
     }
 }
@@ -196,11 +223,17 @@ public interface Repo extends JsonReadable, JsonPatchable, Comparable<Repo> {
  */
 public final class RtGithub implements Github {
 
+    /*
+     * Github API home.
+     */
+    private static final String HOME = "https://api.github.com";
+
     /*
      * Default request to start with.
+     *   on top of the shared connection pool, so keep-alive connections (and warm() ones) are reused
      */
     private static final Request REQUEST =
-        new ApacheRequest("https://api.github.com")
+        new PooledRequest(RtGithub.HOME)
             .header(HttpHeaders.USER_AGENT, RtGithub.USER_AGENT)
             .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
             .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
@@ -247,6 +280,16 @@ public final class RtGithub implements Github {
         );
     }
 
+    /*
+     * Resolve api.github.com and open connections to it, in advance, to be called at startup.
+     *   i.e. the first requests of a batch job don't pay DNS, TCP and TLS
+     * @param connections How many connections to open
+     * @throws IOException If there is any I/O problem
+     */
+    public static void warm(final int connections) throws IOException {
+        new PooledRequest(RtGithub.HOME).warm(connections);
+    }
+
     public Request entry() {
         return this.request;
     }
@@ -287,12 +330,14 @@ final class RtRepos implements Repos {
     }
 
     public Iterable<Repo> iterate(final String identifier) {
-        return new RtPagination<Repo>(
+        return new RtPrefetchPagination<Repo>(
             this.entry.uri().queryParam("since", identifier).back(),
             new RtValuePagination.Mapping<Repo, JsonObject>() {
                 @Override
                 public Repo map(final JsonObject object) {
-                    return RtRepos.this.get(new Coordinates.Simple(object.getString("full_name")));
+                    final Repo repo = RtRepos.this.get(new Coordinates.Simple(object.getString("full_name")));
+                    // keeps the JSON of the page, no GET per repo, unless a field is read that it lacks
+                    return new ConstRepo(repo, new PartialJson(object, repo));
                 }
             }
         );
@@ -441,26 +486,55 @@ public interface Issue extends Comparable<Issue>, JsonReadable, JsonPatchable {
          */
         private final transient SmartJson jsn;
         /*
-         * Public ctor.
+         * Public ctor, every property is read from a fresh JSON.
          * @param iss Issue
          */
         public Smart(final Issue iss) {
+            this(iss, 0L);
+        }
+        /*
+         * Public ctor, in snapshot mode, see Repo.Smart.
+         * @param iss Issue
+         * @param window How long a fetched JSON is used, in milliseconds
+         */
+        public Smart(final Issue iss, final long window) {
             this.issue = iss;
-            this.jsn = new SmartJson(iss);
+            this.jsn = new SmartJson(iss, window);
+        }
+        /*
+         * Drop the snapshot, the next property will be read from a fresh JSON.
+         */
+        public void refresh() {
+            this.jsn.refresh();
+        }
+        /*
+         * Counters of the snapshot, see Repo.Smart.
+         * @return Text
+         */
+        public String stats() {
+            return this.jsn.stats();
         }
         /*
          * Open it (make sure it's open).
          * @throws IOException If there is any I/O problem
          */
         public void open() throws IOException {
-            this.state(Issue.OPEN_STATE);
+            try {
+                this.state(Issue.OPEN_STATE);
+            } finally {
+                this.refresh();                         // the snapshot still says it's closed
+            }
         }
         /*
          * Close it (make sure it's closed).
          * @throws IOException If there is any I/O problem
          */
         public void close() throws IOException {
-            this.state(Issue.CLOSED_STATE);
+            try {
+                this.state(Issue.CLOSED_STATE);
+            } finally {
+                this.refresh();                         // the snapshot still says it's open
+            }
         }
         /*
          * Get its title.
@@ -481,7 +555,7 @@ public interface Issue extends Comparable<Issue>, JsonReadable, JsonPatchable {
         }
 
         public JsonObject json() throws IOException {
-            return this.issue.json();
+            return this.jsn.json();
         }
     }
 }
@@ -530,12 +604,15 @@ final class RtIssues implements Issues {
 
     public Iterable<Issue> iterate(
         final Map<String, String> params) {
-        return new RtPagination<Issue>(
+        return new RtPrefetchPagination<Issue>(
             this.request.uri().queryParams(params).back(),
             new RtValuePagination.Mapping<Issue, JsonObject>() {
                 @Override
                 public Issue map(final JsonObject object) {
-                    return RtIssues.this.get(object.getInt("number"));
+                    return new ConstIssue(                  // keeps the JSON of the page, no GET per issue
+                        RtIssues.this.get(object.getInt("number")),
+                        object
+                    );
                 }
             }
         );
@@ -601,121 +678,1808 @@ final class RtIssue implements Issue {
     }
 }
 
-public interface JsonReadable {
+/*
+ * Pagination that fetches pages ahead of the consumer, instead of one by one when the current one runs out
+ *
+ * for (final Issue issue : new RtPrefetchPagination<Issue>(request, mapping)) { ... }
+ *
+ * 1) the Link header of the first page tells where the next (and maybe the last) page is
+ * 2) if "last" is known, the pages are fetched by number, in parallel, at most AHEAD of them at a time
+ * 3) if it's not, every page is requested as soon as the previous one arrives, not when it's consumed
+ * 4) back-pressure: never more than AHEAD pages are in flight or waiting to be consumed,
+ *    a slow consumer holds the next requests back
+ * 5) items are returned in the order of pages, as RtPagination does
+ * 6) nothing is fetched until the first hasNext(), iterator() itself never does I/O
+ * 7) a Request that can't send without blocking runs its sends on the executor given, PAGES by default,
+ *    never on the common pool
+ */
+final class RtPrefetchPagination<T> implements Iterable<T> {
 
     /*
-     * Describe it in a JSON object.
-     * @return JSON object
+     * How many pages to fetch ahead.
      */
-    JsonObject json() throws IOException;
-}
+    private static final int AHEAD = 4;
 
-/*
- * Smart JSON (supplementary help class).
- * ex.
- *   new SmartJson({"first": "a"}).text("first")                   // JsonString.class
- *   new SmartJson({"second": 1}).number("second")                 // JsonNumber.class
- *   new SmartJson({"arr": [1, 2]})).value("arr", JsonArray.class) // JsonArray.class
- *   new SmartJson({"o": {"foo": [1]}})).value("o", JsonObject.class).getJsonArray("foo") // JsonObject.class
- */
+    /*
+     * Link header, ex. <https://api.github.com/repositories?since=364>; rel="next".
+     */
+    private static final Pattern LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"([a-z]+)\"");
 
-final class SmartJson {
+    /*
+     * Page number in a URI.
+     */
+    private static final Pattern PAGE = Pattern.compile("[?&]page=(\\d+)");
 
     /*
-     * Encapsulated JSON object.
+     * Default executor of blocking page fetches, daemon threads, created on demand.
+     */
+    private static final Executor PAGES = Executors.newCachedThreadPool(
+        runnable -> {
+            final Thread thread = new Thread(runnable, "jcabi-github-pages");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    /*
+     * Request of the first page.
+     */
+    private final transient Request request;
+
+    /*
+     * Mapping of JSON items to objects.
      */
-    private final transient JsonReadable object;
+    private final transient RtValuePagination.Mapping<T, JsonObject> mapping;
+
+    /*
+     * Where blocking fetches run.
+     */
+    private final transient Executor executor;
 
     /*
      * Public ctor.
-     * @param obj Readable object
+     * @param req Request of the first page
+     * @param mpp Mapping
      */
-    SmartJson(final JsonReadable obj) { // any JsonReadable object can be decorated, i.e. any object with json() method
-        this.object = obj;
+    RtPrefetchPagination(final Request req, final RtValuePagination.Mapping<T, JsonObject> mpp) {
+        this(req, mpp, RtPrefetchPagination.PAGES);
     }
 
     /*
-     * Get its property as string.
-     * @param name Name of the property
-     * @return Value
-     * @throws IOException If there is any I/O problem
+     * Public ctor.
+     * @param req Request of the first page
+     * @param mpp Mapping
+     * @param exec Where blocking fetches run
      */
-    public String text(final String name) throws IOException {
-        return this.value(name, JsonString.class).getString();
+    RtPrefetchPagination(final Request req, final RtValuePagination.Mapping<T, JsonObject> mpp,
+        final Executor exec) {
+        this.request = req;
+        this.mapping = mpp;
+        this.executor = exec;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new RtPrefetchPagination<T>.Pages();
     }
 
     /*
-     * Get its property as number.
-     * @param name Name of the property
-     * @return Value
-     * @throws IOException If there is any I/O problem
+     * Links of the response, by rel.
+     * @param response Response
+     * @return Links, ex. {"next": "https://...&page=2", "last": "https://...&page=34"}
      */
-    public int number(final String name) throws IOException {
-        return this.value(name, JsonNumber.class).intValue();
+    static Map<String, String> links(final Response response) {
+        final Map<String, String> links = new HashMap<String, String>(0);
+        for (final String header : response.headers().getOrDefault("Link", Collections.<String>emptyList())) {
+            final Matcher matcher = RtPrefetchPagination.LINK.matcher(header);
+            while (matcher.find()) {
+                links.put(matcher.group(2), matcher.group(1));
+            }
+        }
+        return links;
     }
 
     /*
-     * Get JSON.
-     * @return JSON
+     * URIs of all pages from "next" to "last", by their "page" parameter.
+     * @param next URI of the next page
+     * @param last URI of the last page
+     * @return URIs
      */
-    public JsonObject json() throws IOException {
-        return this.object.json();
+    static Collection<URI> range(final String next, final String last) {
+        final int from = RtPrefetchPagination.number(next);
+        final int till = RtPrefetchPagination.number(last);
+        final Collection<URI> uris = new ArrayList<URI>(Math.max(0, till - from + 1));
+        for (int num = from; num <= till; ++num) {
+            uris.add(UriBuilder.fromUri(next).replaceQueryParam("page", num).build());
+        }
+        return uris;
     }
 
     /*
-     * Get its property as custom type.
-     * @param name Name of the property
-     * @param type Type of result expected
-     * @return Value
-     * @param <T> Type expected
+     * Page number in the URI.
+     * @param uri URI with a "page" parameter
+     * @return Number
      */
-    public <T> T value(final String name, final Class<T> type) throws IOException {
-        final JsonObject json = this.json();
-        if (!json.containsKey(name)) {
-            throw new IllegalStateException(
-                String.format("'%s' is absent in JSON: %s", name, json)
-            );
+    private static int number(final String uri) {
+        final Matcher matcher = RtPrefetchPagination.PAGE.matcher(uri);
+        if (!matcher.find()) {
+            throw new IllegalStateException(String.format("No page number in %s", uri));
         }
-        final JsonValue value = json.get(name);
-        if (value == null) {
-            throw new IllegalStateException(
-                String.format("'%s' is NULL in %s", name, json)
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    /*
+     * Page fetched, parsed.
+     */
+    private static final class Page {
+        /*
+         * Items.
+         */
+        private final transient JsonArray items;
+        /*
+         * Links, by rel: "next", "last", etc.
+         */
+        private final transient Map<String, String> links;
+        /*
+         * Ctor.
+         * @param response Response
+         */
+        Page(final Response response) {
+            this(
+                response.as(RestResponse.class)
+                    .assertStatus(HttpURLConnection.HTTP_OK)
+                    .as(JsonResponse.class)
+                    .json().readArray(),
+                RtPrefetchPagination.links(response)
             );
         }
-        if (value.getClass().isAssignableFrom(type)) {
-            throw new IllegalStateException(
-                String.format("'%s' is not of type %s", name, type)
-            );
+        /*
+         * Ctor.
+         * @param array Items
+         * @param lnks Links
+         */
+        Page(final JsonArray array, final Map<String, String> lnks) {
+            this.items = array;
+            this.links = lnks;
+        }
+    }
+
+    /*
+     * Iterator over items of all pages, it keeps up to AHEAD pages in flight.
+     */
+    private final class Pages implements Iterator<T> {
+        /*
+         * Pages in flight or fetched, in their order.
+         */
+        private final transient Queue<CompletableFuture<RtPrefetchPagination.Page>> flight;
+        /*
+         * URIs of pages not requested yet, when the last page is known.
+         */
+        private final transient Queue<URI> numbered;
+        /*
+         * Items of the current page.
+         */
+        private transient Iterator<JsonValue> items;
+        /*
+         * The last page requested by following "next" links, NULL if pages are numbered.
+         */
+        private transient CompletableFuture<RtPrefetchPagination.Page> tail;
+        /*
+         * Ctor, it fetches nothing, the first hasNext() does.
+         */
+        Pages() {
+            this.flight = new LinkedList<CompletableFuture<RtPrefetchPagination.Page>>();
+            this.numbered = new LinkedList<URI>();
+        }
+        @Override
+        public boolean hasNext() {
+            if (this.items == null) {
+                this.start();
+            }
+            while (!this.items.hasNext() && !this.flight.isEmpty()) {
+                this.items = this.flight.remove().join().items.iterator();
+                this.refill();
+            }
+            return this.items.hasNext();
+        }
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more elements");
+            }
+            return RtPrefetchPagination.this.mapping.map(JsonObject.class.cast(this.items.next()));
+        }
+        /*
+         * Fetch the first page and plan the others by its links.
+         */
+        private void start() {
+            final RtPrefetchPagination.Page first = this.fetch(RtPrefetchPagination.this.request).join();
+            this.items = first.items.iterator();
+            if (first.links.containsKey("last") && first.links.containsKey("next")
+                && RtPrefetchPagination.PAGE.matcher(first.links.get("next")).find()
+                && RtPrefetchPagination.PAGE.matcher(first.links.get("last")).find()) {
+                this.numbered.addAll(
+                    RtPrefetchPagination.range(first.links.get("next"), first.links.get("last"))
+                );
+            } else {
+                this.tail = CompletableFuture.completedFuture(first);
+            }
+            this.refill();
+        }
+        /*
+         * Request more pages, up to AHEAD in the queue.
+         *   a failed tail is not joined here, it's in the queue already and fails when its page is consumed
+         */
+        private void refill() {
+            while (this.flight.size() < RtPrefetchPagination.AHEAD) {
+                if (!this.numbered.isEmpty()) {
+                    this.flight.add(this.fetch(this.page(this.numbered.remove())));
+                } else if (this.tail != null && this.tail.isCompletedExceptionally()) {
+                    break;                                 // nothing to follow after a failed page
+                } else if (this.tail != null && this.tail.isDone() && !this.tail.join().links.containsKey("next")) {
+                    this.tail = null;                      // the last page arrived, nothing to follow
+                } else if (this.tail != null) {
+                    this.tail = this.tail.thenCompose(
+                        page -> {
+                            final CompletableFuture<RtPrefetchPagination.Page> next;
+                            if (page.links.containsKey("next")) {
+                                next = this.fetch(this.page(URI.create(page.links.get("next"))));
+                            } else {
+                                next = CompletableFuture.completedFuture(         // nothing after the last page
+                                    new RtPrefetchPagination.Page(
+                                        Json.createArrayBuilder().build(), Collections.<String, String>emptyMap()
+                                    )
+                                );
+                            }
+                            return next;
+                        }
+                    );
+                    this.flight.add(this.tail);
+                } else {
+                    break;
+                }
+            }
+        }
+        /*
+         * Request of the page.
+         * @param uri URI of the page
+         * @return Request
+         */
+        private Request page(final URI uri) {
+            return RtPrefetchPagination.this.request.uri().set(uri).back();
+        }
+        /*
+         * Fetch a page, without blocking.
+         * @param req Request of the page
+         * @return Future page
+         */
+        private CompletableFuture<RtPrefetchPagination.Page> fetch(final Request req) {
+            return req.fetchAsync(RtPrefetchPagination.this.executor).thenApply(RtPrefetchPagination.Page::new);
         }
-        return type.cast(value);
     }
 }
 
+/*
+ * Issue with its JSON already known, ex. from a page of RtIssues.iterate()
+ *   json() returns that JSON, without a request, until it's invalidated: by patch() or by invalidate()
+ *   afterwards it asks the origin, once, and keeps the answer
+ *
+ * for (final Issue issue : repo.issues().iterate(params)) {
+ *     new Issue.Smart(issue).title();             // 10k issues in pages of 100 cost 100 requests, not 10,100
+ * }
+ */
+final class ConstIssue implements Issue {
 
-// the main function for using jcabi-github
-public class Main {
+    /*
+     * Original issue.
+     */
+    private final transient Issue origin;
 
-    public static void main(String[] args) throws IOException {
-        Github github = new RtGithub(".. your OAuth token ..");                       // instantiate Github object
-        Repo repo = github.repos().get(new Coordinates.Simple("jcabi/jcabi-github")); // get Repos & Repo objects
-        Issue issue = repo.issues().create("How are you?", "Please tell me...");      // get Issues & create issue
-        issue.comments().post("My first comment!");                                   // post a comment to a issue
+    /*
+     * Its JSON, NULL when invalidated.
+     */
+    private final transient AtomicReference<JsonObject> known;
+
+    /*
+     * Public ctor.
+     * @param issue Original issue
+     * @param json Its JSON
+     */
+    ConstIssue(final Issue issue, final JsonObject json) {
+        this.origin = issue;
+        this.known = new AtomicReference<JsonObject>(json);
+    }
+
+    /*
+     * Forget the JSON, the next json() will fetch it.
+     */
+    public void invalidate() {
+        this.known.set(null);
+    }
+
+    public Repo repo() {
+        return this.origin.repo();
+    }
+
+    public int number() {
+        return this.origin.number();
+    }
+
+    public Comments comments() {
+        return this.origin.comments();
+    }
+
+    public JsonObject json() throws IOException {
+        JsonObject json = this.known.get();
+        if (json == null) {
+            json = this.origin.json();
+            this.known.compareAndSet(null, json);
+        }
+        return json;
+    }
+
+    public void patch(final JsonObject json) throws IOException {
+        this.known.set(null);
+        try {
+            this.origin.patch(json);
+        } finally {
+            this.known.set(null);                       // a json() during the patch may have kept the old one
+        }
+    }
+
+    public int compareTo(final Issue issue) {
+        return this.origin.compareTo(issue);
     }
 }
 
-// the test code
-public class FooTest {
+/*
+ * Repo with its JSON already known, ex. from a page of RtRepos.iterate(), see ConstIssue
+ */
+final class ConstRepo implements Repo {
 
-    public void submitsCommentToGithubIssue() {
-        final Repo repo = new MkGithub().repos().create(              // create a Repo object
-            Json.createObjectBuilder().add("name", "test").build()    // build a JsonObject
-        );
-        final Issue issue = repo.issues().create("how are you?", ""); // create a Issue object
-        new Foo(issue).doSomething();                                 // expected to post a message to the issue
-        MasterAssert.assertThat(                                      // assert that there is at least one comment
-            issue.comments().iterate(),
-            Matchers.iterableWithSize(1)
-        );
+    /*
+     * Original repo.
+     */
+    private final transient Repo origin;
+
+    /*
+     * Its JSON, NULL when invalidated.
+     */
+    private final transient AtomicReference<JsonObject> known;
+
+    /*
+     * Public ctor.
+     * @param repo Original repo
+     * @param json Its JSON
+     */
+    ConstRepo(final Repo repo, final JsonObject json) {
+        this.origin = repo;
+        this.known = new AtomicReference<JsonObject>(json);
+    }
+
+    /*
+     * Forget the JSON, the next json() will fetch it.
+     */
+    public void invalidate() {
+        this.known.set(null);
+    }
+
+    public Github github() {
+        return this.origin.github();
+    }
+
+    public Coordinates coordinates() {
+        return this.origin.coordinates();
+    }
+
+    public Issues issues() {
+        return this.origin.issues();
+    }
+
+    public JsonObject json() throws IOException {
+        JsonObject json = this.known.get();
+        if (json == null) {
+            json = this.origin.json();
+            this.known.compareAndSet(null, json);
+        }
+        return json;
+    }
+
+    public void patch(final JsonObject json) throws IOException {
+        this.known.set(null);
+        try {
+            this.origin.patch(json);
+        } finally {
+            this.known.set(null);                       // a json() during the patch may have kept the old one
+        }
+    }
+
+    public int compareTo(final Repo repo) {
+        return this.origin.compareTo(repo);
+    }
+}
+
+/*
+ * JSON known in part, ex. a repo of the minimal listing of /repositories, with the rest read from its origin
+ *   a key of the part is answered from it, any other key (or the whole map) fetches the full JSON, once
+ *
+ * final Repo repo = github.repos().get(new Coordinates.Simple(object.getString("full_name")));
+ * new ConstRepo(repo, new PartialJson(object, repo));      // "stargazers_count" is there too, by REST
+ *
+ * JsonObject can't throw IOException, a failed fetch is an UncheckedIOException
+ */
+final class PartialJson extends AbstractMap<String, JsonValue> implements JsonObject {
+
+    /*
+     * The part known.
+     */
+    private final transient JsonObject part;
+
+    /*
+     * Where the full JSON comes from.
+     */
+    private final transient JsonReadable origin;
+
+    /*
+     * Full JSON, NULL until a key is missing.
+     */
+    private final transient AtomicReference<JsonObject> whole;
+
+    /*
+     * Ctor.
+     * @param json The part known
+     * @param full Where the full JSON comes from, not a ConstRepo or ConstIssue of this JSON
+     */
+    PartialJson(final JsonObject json, final JsonReadable full) {
+        this.part = json;
+        this.origin = full;
+        this.whole = new AtomicReference<JsonObject>();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return this.part.containsKey(key) || this.full().containsKey(key);
+    }
+
+    @Override
+    public JsonValue get(final Object key) {
+        final JsonValue value;
+        if (this.part.containsKey(key)) {
+            value = this.part.get(key);
+        } else {
+            value = this.full().get(key);
+        }
+        return value;
+    }
+
+    @Override
+    public Set<Map.Entry<String, JsonValue>> entrySet() {
+        return this.full().entrySet();
+    }
+
+    @Override
+    public JsonArray getJsonArray(final String name) {
+        return JsonArray.class.cast(this.get(name));
+    }
+
+    @Override
+    public JsonObject getJsonObject(final String name) {
+        return JsonObject.class.cast(this.get(name));
+    }
+
+    @Override
+    public JsonNumber getJsonNumber(final String name) {
+        return JsonNumber.class.cast(this.get(name));
+    }
+
+    @Override
+    public JsonString getJsonString(final String name) {
+        return JsonString.class.cast(this.get(name));
+    }
+
+    @Override
+    public String getString(final String name) {
+        return this.getJsonString(name).getString();
+    }
+
+    @Override
+    public String getString(final String name, final String def) {
+        final JsonValue value = this.get(name);
+        final String text;
+        if (value instanceof JsonString) {
+            text = JsonString.class.cast(value).getString();
+        } else {
+            text = def;
+        }
+        return text;
+    }
+
+    @Override
+    public int getInt(final String name) {
+        return this.getJsonNumber(name).intValue();
+    }
+
+    @Override
+    public int getInt(final String name, final int def) {
+        final JsonValue value = this.get(name);
+        final int num;
+        if (value instanceof JsonNumber) {
+            num = JsonNumber.class.cast(value).intValue();
+        } else {
+            num = def;
+        }
+        return num;
+    }
+
+    @Override
+    public boolean getBoolean(final String name) {
+        final JsonValue value = this.get(name);
+        if (value == null) {
+            throw new NullPointerException(String.format("'%s' is absent in JSON", name));
+        }
+        if (value.getValueType() != JsonValue.ValueType.TRUE && value.getValueType() != JsonValue.ValueType.FALSE) {
+            throw new ClassCastException(String.format("'%s' is not a boolean", name));
+        }
+        return value.getValueType() == JsonValue.ValueType.TRUE;
+    }
+
+    @Override
+    public boolean getBoolean(final String name, final boolean def) {
+        final JsonValue value = this.get(name);
+        final boolean bool;
+        if (value != null && value.getValueType() == JsonValue.ValueType.TRUE) {
+            bool = true;
+        } else if (value != null && value.getValueType() == JsonValue.ValueType.FALSE) {
+            bool = false;
+        } else {
+            bool = def;
+        }
+        return bool;
+    }
+
+    @Override
+    public boolean isNull(final String name) {
+        return JsonValue.NULL.equals(this.get(name));
+    }
+
+    @Override
+    public JsonValue.ValueType getValueType() {
+        return JsonValue.ValueType.OBJECT;
+    }
+
+    @Override
+    public String toString() {
+        return this.full().toString();
+    }
+
+    /*
+     * The full JSON, fetched on the first call.
+     * @return JSON
+     */
+    private JsonObject full() {
+        JsonObject json = this.whole.get();
+        if (json == null) {
+            try {
+                json = this.origin.json();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            this.whole.compareAndSet(null, json);
+        }
+        return json;
+    }
+}
+
+/*
+ * Bulk reads through the GraphQL endpoint: many repos (or issues) in a few requests, instead of one each
+ *
+ * final Iterable<Repo> repos = new RtBatch(github).repos(coordinates);   // 500 repos: 5 POSTs to /graphql
+ * for (final Repo repo : repos) {
+ *     new Repo.Smart(repo).description();                                 // no request, see ConstRepo
+ * }
+ *
+ * 1) up to CHUNK objects go into one query, each one under its own alias, ex. r17: repository(...) {...}
+ * 2) fields are asked by their GraphQL names and answered by their REST names, i.e. the JSON of
+ *    every object looks like the one RtRepo.json() or RtIssue.json() would give, for these fields
+ * 3) the objects are ConstRepo and ConstIssue, their JSON is a PartialJson: the fields of REPO or ISSUE
+ *    are read without a request, any other one (ex. "created_at") fetches the full JSON by REST, once
+ * 4) a repo or an issue that doesn't exist (its alias is null) fails the call with an IOException,
+ *    with the GraphQL errors of that alias, so does an answer without "data"
+ * 5) the endpoint is "/graphql" next to the REST entry, or "/api/graphql" when the entry is a
+ *    GitHub Enterprise one, ex. "https://ghe.example.com/api/v3", any other is given to the ctor
+ */
+public final class RtBatch {
+
+    /*
+     * Objects per query.
+     */
+    private static final int CHUNK = 100;
+
+    /*
+     * Repo fields, REST name to GraphQL name.
+     */
+    private static final Map<String, String> REPO = RtBatch.fields(
+        "name", "name",
+        "full_name", "nameWithOwner",
+        "description", "description",
+        "private", "isPrivate",
+        "fork", "isFork",
+        "html_url", "url",
+        "stargazers_count", "stargazerCount"
+    );
+
+    /*
+     * Issue fields, REST name to GraphQL name.
+     */
+    private static final Map<String, String> ISSUE = RtBatch.fields(
+        "number", "number",
+        "title", "title",
+        "body", "body",
+        "state", "state",
+        "html_url", "url"
+    );
+
+    /*
+     * Github.
+     */
+    private final transient Github ghub;
+
+    /*
+     * GraphQL endpoint.
+     */
+    private final transient URI endpoint;
+
+    /*
+     * Public ctor, with the GraphQL endpoint next to the REST entry.
+     * @param github Github
+     */
+    public RtBatch(final Github github) {
+        this(github, RtBatch.graphql(github.entry().uri().get()));
+    }
+
+    /*
+     * Public ctor.
+     * @param github Github
+     * @param graphql GraphQL endpoint, ex. "https://ghe.example.com/api/graphql"
+     */
+    public RtBatch(final Github github, final URI graphql) {
+        this.ghub = github;
+        this.endpoint = graphql;
+    }
+
+    /*
+     * Read these repos.
+     * @param coords Coordinates of repos
+     * @return Repos, in the same order, with their JSON known
+     * @throws IOException If there is any I/O problem
+     */
+    public List<Repo> repos(final List<Coordinates> coords) throws IOException {
+        final List<String> queries = new ArrayList<String>(coords.size());
+        for (final Coordinates crd : coords) {
+            queries.add(
+                String.format(
+                    "repository(owner: %s, name: %s) { %s }",
+                    RtBatch.quoted(crd.user()), RtBatch.quoted(crd.repo()),
+                    String.join(" ", RtBatch.REPO.values())
+                )
+            );
+        }
+        final List<JsonObject> jsons = this.fetch(queries, RtBatch.REPO);
+        final List<Repo> repos = new ArrayList<Repo>(coords.size());
+        for (int idx = 0; idx < coords.size(); ++idx) {
+            final Repo repo = this.ghub.repos().get(coords.get(idx));
+            repos.add(new ConstRepo(repo, new PartialJson(jsons.get(idx), repo)));
+        }
+        return repos;
+    }
+
+    /*
+     * Read these issues of the repo.
+     * @param repo Repo
+     * @param numbers Numbers of issues
+     * @return Issues, in the same order, with their JSON known
+     * @throws IOException If there is any I/O problem
+     */
+    public List<Issue> issues(final Repo repo, final List<Integer> numbers) throws IOException {
+        final Coordinates crd = repo.coordinates();
+        final List<String> queries = new ArrayList<String>(numbers.size());
+        for (final int number : numbers) {
+            queries.add(
+                String.format(
+                    "repository(owner: %s, name: %s) { issue(number: %d) { %s } }",
+                    RtBatch.quoted(crd.user()), RtBatch.quoted(crd.repo()), number,
+                    String.join(" ", RtBatch.ISSUE.values())
+                )
+            );
+        }
+        final List<JsonObject> jsons = this.fetch(queries, RtBatch.ISSUE);
+        final List<Issue> issues = new ArrayList<Issue>(numbers.size());
+        for (int idx = 0; idx < numbers.size(); ++idx) {
+            final Issue issue = repo.issues().get(numbers.get(idx));
+            issues.add(new ConstIssue(issue, new PartialJson(jsons.get(idx), issue)));
+        }
+        return issues;
+    }
+
+    /*
+     * Run the queries, CHUNK at a time, and convert the answers to REST JSON.
+     * @param queries One query per object
+     * @param names REST name to GraphQL name
+     * @return One JSON per object, in the same order
+     */
+    private List<JsonObject> fetch(final List<String> queries, final Map<String, String> names)
+        throws IOException {
+        final List<JsonObject> jsons = new ArrayList<JsonObject>(queries.size());
+        for (int start = 0; start < queries.size(); start += RtBatch.CHUNK) {
+            final StringBuilder query = new StringBuilder("query {");
+            final int end = Math.min(start + RtBatch.CHUNK, queries.size());
+            for (int idx = start; idx < end; ++idx) {
+                query.append(" r").append(idx).append(": ").append(queries.get(idx));
+            }
+            final JsonObject answer = this.ghub.entry()
+                .uri().set(this.endpoint).back()
+                .method(Request.POST)
+                .body().set(Json.createObjectBuilder().add("query", query.append(" }").toString()).build()).back()
+                .fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .as(JsonResponse.class)
+                .json().readObject();
+            if (!answer.containsKey("data") || answer.isNull("data")) {
+                throw new IOException(String.format("GraphQL query failed: %s", RtBatch.errors(answer, null)));
+            }
+            final JsonObject data = answer.getJsonObject("data");
+            final Collection<String> missing = new LinkedList<String>();
+            for (int idx = start; idx < end; ++idx) {
+                final String alias = String.format("r%d", idx);
+                JsonObject object = null;
+                if (data.containsKey(alias) && !data.isNull(alias)) {
+                    object = data.getJsonObject(alias);
+                    if (object.containsKey("issue")) {
+                        object = object.isNull("issue") ? null : object.getJsonObject("issue");
+                    }
+                }
+                if (object == null) {
+                    missing.add(String.format("%s (%s)", queries.get(idx), RtBatch.errors(answer, alias)));
+                } else {
+                    jsons.add(RtBatch.rest(object, names));
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IOException(String.format("Not found: %s", String.join(", ", missing)));
+            }
+        }
+        return jsons;
+    }
+
+    /*
+     * GraphQL endpoint of a REST entry.
+     * @param rest REST entry, ex. "https://api.github.com" or "https://ghe.example.com/api/v3"
+     * @return Endpoint, ex. "https://api.github.com/graphql" or "https://ghe.example.com/api/graphql"
+     */
+    private static URI graphql(final URI rest) {
+        final String path = rest.getPath().replaceAll("/+$", "");
+        final URI uri;
+        if (path.endsWith("/api/v3")) {
+            uri = UriBuilder.fromUri(rest)
+                .replacePath(path.substring(0, path.length() - "/v3".length()))
+                .path("/graphql")
+                .build();
+        } else {
+            uri = UriBuilder.fromUri(rest).path("/graphql").build();
+        }
+        return uri;
+    }
+
+    /*
+     * Messages of GraphQL errors.
+     * @param answer The whole answer
+     * @param alias Only errors of this alias, ex. "r3", or NULL for all
+     * @return Messages, ex. "Could not resolve to a Repository with the name 'jcabi/none'."
+     */
+    private static String errors(final JsonObject answer, final String alias) {
+        final Collection<String> messages = new LinkedList<String>();
+        if (answer.containsKey("errors") && !answer.isNull("errors")) {
+            for (final JsonObject error : answer.getJsonArray("errors").getValuesAs(JsonObject.class)) {
+                final JsonArray path = error.getJsonArray("path");
+                if (alias == null || path != null && !path.isEmpty()
+                    && path.get(0) instanceof JsonString && alias.equals(path.getString(0))) {
+                    messages.add(error.getString("message", "unknown error"));
+                }
+            }
+        }
+        if (messages.isEmpty()) {
+            messages.add("no errors reported");
+        }
+        return String.join("; ", messages);
+    }
+
+    /*
+     * GraphQL answer as REST JSON.
+     * @param answer The answer
+     * @param names REST name to GraphQL name
+     * @return JSON
+     */
+    private static JsonObject rest(final JsonObject answer, final Map<String, String> names) {
+        final JsonObjectBuilder json = Json.createObjectBuilder();
+        for (final Map.Entry<String, String> name : names.entrySet()) {
+            final JsonValue value = answer.get(name.getValue());
+            if ("state".equals(name.getKey()) && value instanceof JsonString) {
+                json.add(                                       // "OPEN" in GraphQL is "open" in REST
+                    name.getKey(), JsonString.class.cast(value).getString().toLowerCase(Locale.ENGLISH)
+                );
+            } else if (value != null) {
+                json.add(name.getKey(), value);
+            }
+        }
+        return json.build();
+    }
+
+    /*
+     * GraphQL string literal.
+     * @param text Text
+     * @return Quoted and escaped
+     */
+    private static String quoted(final String text) {
+        return String.format("\"%s\"", text.replace("\\", "\\\\").replace("\"", "\\\""));
+    }
+
+    /*
+     * Fields map.
+     * @param pairs REST name, GraphQL name, REST name, ...
+     * @return Map, in the order given
+     */
+    private static Map<String, String> fields(final String... pairs) {
+        final Map<String, String> map = new LinkedHashMap<String, String>(pairs.length / 2);
+        for (int idx = 0; idx < pairs.length; idx += 2) {
+            map.put(pairs[idx], pairs[idx + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
+
+/*
+ * JSON of a Github resource, read with a conditional request when its ETag is known
+ *   the ETag and the JSON of every 200 answer are kept in Etags, the next fetch() sends If-None-Match,
+ *   and a "304 Not Modified" is answered with the kept JSON
+ *   they are kept by URI, Authorization and Accept, like CachingWire keeps its answers, so two
+ *   RtGithub with other tokens or other media types never get each other's JSON from the shared store
+ *   Github doesn't count 304 answers to authorized requests against the rate limit
+ *
+ * new RtJson(request).fetch();                                             // shared in-memory store
+ * new RtJson(request, new MemoryEtags(10000, new DiskEtags(dir))).fetch();  // bigger, spilled to disk
+ */
+final class RtJson {
+
+    /*
+     * Store shared by all instances, by default.
+     */
+    private static final Etags STORE = new MemoryEtags(10000);
+
+    /*
+     * Request.
+     */
+    private final transient Request request;
+
+    /*
+     * ETags and JSONs.
+     */
+    private final transient Etags etags;
+
+    /*
+     * Public ctor.
+     * @param req Request
+     */
+    RtJson(final Request req) {
+        this(req, RtJson.STORE);
+    }
+
+    /*
+     * Public ctor.
+     * @param req Request
+     * @param store ETags and JSONs
+     */
+    RtJson(final Request req, final Etags store) {
+        this.request = req;
+        this.etags = store;
+    }
+
+    /*
+     * Fetch JSON object.
+     * @return JSON object
+     * @throws IOException If there is any I/O problem
+     */
+    public JsonObject fetch() throws IOException {
+        final String key = RtJson.key(this.request);
+        final Etags.Tagged known = this.etags.get(key);
+        Request req = this.request.method(Request.GET);
+        if (known != null) {
+            req = req.header(HttpHeaders.IF_NONE_MATCH, known.etag());
+        }
+        final Response response = req.fetch();
+        final JsonObject json;
+        if (known != null && response.status() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            json = known.json();
+        } else {
+            json = response.as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .as(JsonResponse.class)
+                .json().readObject();
+            final List<String> etag = response.headers().get(HttpHeaders.ETAG);
+            if (etag != null) {
+                this.etags.put(key, new Etags.Tagged(etag.get(0), json));
+            }
+        }
+        return json;
+    }
+
+    /*
+     * Key of the request in the store.
+     * @param req Request
+     * @return URI, Authorization and Accept, on separate lines
+     */
+    private static String key(final Request req) {
+        return new StringBuilder(req.uri().get().toString())
+            .append('\n').append(RtJson.value(req.headers(), HttpHeaders.AUTHORIZATION))
+            .append('\n').append(RtJson.value(req.headers(), HttpHeaders.ACCEPT))
+            .toString();
+    }
+
+    /*
+     * All values of a request header, joined with commas.
+     * @param headers Request headers
+     * @param name Header name, case-insensitive
+     * @return Value, empty if there is no such header
+     */
+    private static String value(final Collection<Map.Entry<String, String>> headers, final String name) {
+        final StringJoiner joined = new StringJoiner(",");
+        for (final Map.Entry<String, String> header : headers) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                joined.add(header.getValue().trim());
+            }
+        }
+        return joined.toString();
+    }
+}
+
+/*
+ * Store of ETags and JSONs, by URI, for RtJson
+ */
+interface Etags {
+
+    /*
+     * Get it.
+     * @param uri URI
+     * @return Tagged JSON or NULL if not known
+     */
+    Etags.Tagged get(String uri) throws IOException;
+
+    /*
+     * Put it.
+     * @param uri URI
+     * @param tagged Tagged JSON
+     */
+    void put(String uri, Etags.Tagged tagged) throws IOException;
+
+    /*
+     * JSON with its ETag.
+     */
+    final class Tagged {
+        /*
+         * ETag.
+         */
+        private final transient String tag;
+        /*
+         * JSON.
+         */
+        private final transient JsonObject object;
+        /*
+         * Ctor.
+         * @param etag ETag, as Github gave it, ex. W/"a1b2c3"
+         * @param json JSON
+         */
+        Tagged(final String etag, final JsonObject json) {
+            this.tag = etag;
+            this.object = json;
+        }
+        String etag() {
+            return this.tag;
+        }
+        JsonObject json() {
+            return this.object;
+        }
+    }
+
+    /*
+     * Store that keeps nothing.
+     */
+    final class None implements Etags {
+        public Etags.Tagged get(final String uri) {
+            return null;
+        }
+        public void put(final String uri, final Etags.Tagged tagged) {
+            // nothing to keep
+        }
+    }
+}
+
+/*
+ * ETags in memory, the least recently used are spilled to another store when there are more than "max"
+ *   the spill store is read and written outside of the lock, a slow disk doesn't stop the other threads
+ */
+final class MemoryEtags implements Etags {
+
+    /*
+     * Tagged JSONs, by URI, in access order, guarded by itself.
+     */
+    private final transient LinkedHashMap<String, Etags.Tagged> map;
+
+    /*
+     * Maximum in memory.
+     */
+    private final transient int max;
+
+    /*
+     * Where the evicted ones go.
+     */
+    private final transient Etags spill;
+
+    /*
+     * Ctor, without spilling.
+     * @param max Maximum in memory
+     */
+    MemoryEtags(final int max) {
+        this(max, new Etags.None());
+    }
+
+    /*
+     * Ctor.
+     * @param most Maximum in memory
+     * @param next Where the evicted ones go
+     */
+    MemoryEtags(final int most, final Etags next) {
+        this.max = most;
+        this.spill = next;
+        this.map = new LinkedHashMap<String, Etags.Tagged>(16, 0.75f, true);
+    }
+
+    public Etags.Tagged get(final String uri) throws IOException {
+        Etags.Tagged tagged;
+        synchronized (this.map) {
+            tagged = this.map.get(uri);
+        }
+        if (tagged == null) {
+            tagged = this.spill.get(uri);
+            if (tagged != null) {
+                final Collection<Map.Entry<String, Etags.Tagged>> evicted;
+                synchronized (this.map) {
+                    final Etags.Tagged newer = this.map.putIfAbsent(uri, tagged);
+                    if (newer != null) {
+                        tagged = newer;                 // put() while we were reading the disk
+                    }
+                    evicted = this.evict();
+                }
+                this.spill(evicted);
+            }
+        }
+        return tagged;
+    }
+
+    public void put(final String uri, final Etags.Tagged tagged) throws IOException {
+        final Collection<Map.Entry<String, Etags.Tagged>> evicted;
+        synchronized (this.map) {
+            this.map.put(uri, tagged);
+            evicted = this.evict();
+        }
+        this.spill(evicted);
+    }
+
+    /*
+     * Remove the least recently used ones, over the maximum, the lock must be held.
+     * @return Removed entries
+     */
+    private Collection<Map.Entry<String, Etags.Tagged>> evict() {
+        final Collection<Map.Entry<String, Etags.Tagged>> evicted = new LinkedList<Map.Entry<String, Etags.Tagged>>();
+        final Iterator<Map.Entry<String, Etags.Tagged>> eldest = this.map.entrySet().iterator();
+        while (this.map.size() > this.max && eldest.hasNext()) {
+            final Map.Entry<String, Etags.Tagged> entry = eldest.next();
+            evicted.add(new AbstractMap.SimpleImmutableEntry<String, Etags.Tagged>(entry));
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    /*
+     * Write them to the spill store, without the lock.
+     * @param evicted Removed entries
+     */
+    private void spill(final Collection<Map.Entry<String, Etags.Tagged>> evicted) throws IOException {
+        for (final Map.Entry<String, Etags.Tagged> entry : evicted) {
+            this.spill.put(entry.getKey(), entry.getValue());
+        }
+    }
+}
+
+/*
+ * ETags on disk, one file per URI: the ETag on the first line, the JSON on the second
+ */
+final class DiskEtags implements Etags {
+
+    /*
+     * Directory.
+     */
+    private final transient Path dir;
+
+    /*
+     * Ctor.
+     * @param path Directory, it must exist
+     */
+    DiskEtags(final Path path) {
+        this.dir = path;
+    }
+
+    public Etags.Tagged get(final String uri) throws IOException {
+        final Path file = this.file(uri);
+        Etags.Tagged tagged = null;
+        if (Files.exists(file)) {
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            try {
+                if (lines.size() == 2) {
+                    tagged = new Etags.Tagged(
+                        lines.get(0), Json.createReader(new StringReader(lines.get(1))).readObject()
+                    );
+                }
+            } catch (final JsonException ex) {
+                tagged = null;
+            }
+            if (tagged == null) {
+                Files.deleteIfExists(file);                 // truncated or corrupt, a miss, and it's fetched again
+            }
+        }
+        return tagged;
+    }
+
+    public void put(final String uri, final Etags.Tagged tagged) throws IOException {
+        final Path temp = Files.createTempFile(this.dir, "etag", ".tmp");
+        Files.write(
+            temp,
+            Arrays.asList(tagged.etag(), tagged.json().toString()),
+            StandardCharsets.UTF_8
+        );
+        Files.move(temp, this.file(uri), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * File of the URI.
+     * @param uri URI
+     * @return Path
+     */
+    private Path file(final String uri) {
+        return this.dir.resolve(DigestUtils.sha1Hex(uri));
+    }
+}
+
+public interface JsonReadable {
+
+    /*
+     * Describe it in a JSON object.
+     * @return JSON object
+     */
+    JsonObject json() throws IOException;
+}
+
+/*
+ * Smart JSON (supplementary help class).
+ * ex.
+ *   new SmartJson({"first": "a"}).text("first")                   // JsonString.class
+ *   new SmartJson({"second": 1}).number("second")                 // JsonNumber.class
+ *   new SmartJson({"arr": [1, 2]})).value("arr", JsonArray.class) // JsonArray.class
+ *   new SmartJson({"o": {"foo": [1]}})).value("o", JsonObject.class).getJsonArray("foo") // JsonObject.class
+ */
+
+final class SmartJson {
+
+    /*
+     * Encapsulated JSON object.
+     */
+    private final transient SmartJson.Snapshot object;
+
+    /*
+     * Public ctor.
+     * @param obj Readable object
+     */
+    SmartJson(final JsonReadable obj) { // any JsonReadable object can be decorated, i.e. any object with json() method
+        this(obj, 0L);
+    }
+
+    /*
+     * Public ctor, in snapshot mode: a fetched JSON is used for all properties during the window.
+     * @param obj Readable object
+     * @param window How long a fetched JSON is used, in milliseconds, zero to fetch for every property
+     */
+    SmartJson(final JsonReadable obj, final long window) {
+        this.object = new SmartJson.Snapshot(obj, window);
+    }
+
+    /*
+     * Drop the snapshot.
+     */
+    public void refresh() {
+        this.object.refresh();
+    }
+
+    /*
+     * Counters of this object, ex. "fetches=10, saved=90".
+     * @return Text
+     */
+    public String stats() {
+        return String.format("fetches=%d, saved=%d", this.object.fetches.get(), this.object.saved.get());
+    }
+
+    /*
+     * Get its property as string.
+     * @param name Name of the property
+     * @return Value
+     * @throws IOException If there is any I/O problem
+     */
+    public String text(final String name) throws IOException {
+        return this.value(name, JsonString.class).getString();
+    }
+
+    /*
+     * Get its property as number.
+     * @param name Name of the property
+     * @return Value
+     * @throws IOException If there is any I/O problem
+     */
+    public int number(final String name) throws IOException {
+        return this.value(name, JsonNumber.class).intValue();
+    }
+
+    /*
+     * Get JSON.
+     * @return JSON
+     */
+    public JsonObject json() throws IOException {
+        return this.object.json();
+    }
+
+    /*
+     * Get its property as custom type.
+     * @param name Name of the property
+     * @param type Type of result expected
+     * @return Value
+     * @param <T> Type expected
+     */
+    public <T> T value(final String name, final Class<T> type) throws IOException {
+        final JsonObject json = this.json();
+        if (!json.containsKey(name)) {
+            throw new IllegalStateException(
+                String.format("'%s' is absent in JSON: %s", name, json)
+            );
+        }
+        final JsonValue value = json.get(name);
+        if (value == null) {
+            throw new IllegalStateException(
+                String.format("'%s' is NULL in %s", name, json)
+            );
+        }
+        if (value.getClass().isAssignableFrom(type)) {
+            throw new IllegalStateException(
+                String.format("'%s' is not of type %s", name, type)
+            );
+        }
+        return type.cast(value);
+    }
+
+    /*
+     * JSON of the object, fetched once per window.
+     */
+    private static final class Snapshot implements JsonReadable {
+        /*
+         * JSONs fetched.
+         */
+        private final transient AtomicLong fetches = new AtomicLong();
+        /*
+         * JSONs served without a fetch.
+         */
+        private final transient AtomicLong saved = new AtomicLong();
+        /*
+         * Encapsulated object.
+         */
+        private final transient JsonReadable origin;
+        /*
+         * Window, in milliseconds.
+         */
+        private final transient long window;
+        /*
+         * The JSON and when it expires.
+         */
+        private final transient AtomicReference<Map.Entry<Long, JsonObject>> last;
+        /*
+         * Ctor.
+         * @param obj Readable object
+         * @param msec Window, in milliseconds
+         */
+        Snapshot(final JsonReadable obj, final long msec) {
+            this.origin = obj;
+            this.window = msec;
+            this.last = new AtomicReference<Map.Entry<Long, JsonObject>>();
+        }
+        @Override
+        public JsonObject json() throws IOException {
+            final long now = System.currentTimeMillis();
+            final Map.Entry<Long, JsonObject> snap = this.last.get();
+            final JsonObject json;
+            if (snap != null && now < snap.getKey()) {
+                this.saved.incrementAndGet();
+                json = snap.getValue();
+            } else {
+                this.fetches.incrementAndGet();
+                json = this.origin.json();
+                this.last.set(new AbstractMap.SimpleImmutableEntry<Long, JsonObject>(now + this.window, json));
+            }
+            return json;
+        }
+        /*
+         * Drop it.
+         */
+        void refresh() {
+            this.last.set(null);
+        }
+    }
+}
+
+
+// the main function for using jcabi-github
+public class Main {
+
+    public static void main(String[] args) throws IOException {
+        Github github = new RtGithub(".. your OAuth token ..");                       // instantiate Github object
+        Repo repo = github.repos().get(new Coordinates.Simple("jcabi/jcabi-github")); // get Repos & Repo objects
+        Issue issue = repo.issues().create("How are you?", "Please tell me...");      // get Issues & create issue
+        issue.comments().post("My first comment!");                                   // post a comment to a issue
+    }
+}
+
+// the test code
+public class FooTest {
+
+    public void submitsCommentToGithubIssue() {
+        final Repo repo = new MkGithub().repos().create(              // create a Repo object
+            Json.createObjectBuilder().add("name", "test").build()    // build a JsonObject
+        );
+        final Issue issue = repo.issues().create("how are you?", ""); // create a Issue object
+        new Foo(issue).doSomething();                                 // expected to post a message to the issue
+        MasterAssert.assertThat(                                      // assert that there is at least one comment
+            issue.comments().iterate(),
+            Matchers.iterableWithSize(1)
+        );
+    }
+}
+
+// test of RtRepos, against a local stand-in server
+public final class RtReposTest {
+
+    /*
+     * RtRepos can give the fields of the listing without a request, and fetch the ones the listing lacks.
+     */
+    @Test
+    public void readsFieldsAbsentFromListing() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("[{\"id\":1,\"full_name\":\"jcabi/jcabi-github\"}]"))
+            .next(
+                new MkAnswer.Simple(
+                    "{\"id\":1,\"full_name\":\"jcabi/jcabi-github\",\"stargazers_count\":7,"
+                        + "\"created_at\":\"2011-01-26T19:01:12Z\"}"
+                )
+            )
+            .start();
+        try {
+            final Repo repo = new RtGithub(new JdkRequest(container.home())).repos()
+                .iterate("0").iterator().next();
+            MatcherAssert.assertThat(repo.json().getInt("id"), Matchers.equalTo(1));
+            MatcherAssert.assertThat(container.queries(), Matchers.equalTo(1));
+            final Repo.Smart smart = new Repo.Smart(repo);
+            MatcherAssert.assertThat(smart.json().getInt("stargazers_count"), Matchers.equalTo(7));
+            MatcherAssert.assertThat(smart.json().getString("created_at"), Matchers.equalTo("2011-01-26T19:01:12Z"));
+            MatcherAssert.assertThat(container.queries(), Matchers.equalTo(2));
+        } finally {
+            container.stop();
+        }
+    }
+}
+
+// test of RtBatch, against a local stand-in server
+public final class RtBatchTest {
+
+    /*
+     * RtBatch can read many repos in one request and give their JSON without another one.
+     */
+    @Test
+    public void readsReposInOneRequest() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer().next(
+            new MkAnswer.Simple(
+                "{\"data\":{\"r0\":{\"description\":\"first\"},\"r1\":{\"description\":\"second\"}}}"
+            )
+        ).start();
+        try {
+            final List<Repo> repos = new RtBatch(new RtGithub(new JdkRequest(container.home()))).repos(
+                Arrays.<Coordinates>asList(
+                    new Coordinates.Simple("jcabi/jcabi-github"),
+                    new Coordinates.Simple("jcabi/jcabi-http")
+                )
+            );
+            MatcherAssert.assertThat(
+                new Repo.Smart(repos.get(1)).description(),
+                Matchers.equalTo("second")
+            );
+            MatcherAssert.assertThat(container.queries(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(
+                container.take().body(),
+                Matchers.containsString("r1: repository(owner: \\\"jcabi\\\", name: \\\"jcabi-http\\\")")
+            );
+        } finally {
+            container.stop();
+        }
+    }
+    /*
+     * RtBatch can report a repo that doesn't exist, with its GraphQL error.
+     */
+    @Test
+    public void reportsRepoNotFound() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer().next(
+            new MkAnswer.Simple(
+                "{\"data\":{\"r0\":{\"description\":\"first\"},\"r1\":null},\"errors\":[{\"type\":\"NOT_FOUND\","
+                    + "\"path\":[\"r1\"],\"message\":\"Could not resolve to a Repository with the name 'jcabi/none'.\"}]}"
+            )
+        ).start();
+        try {
+            new RtBatch(new RtGithub(new JdkRequest(container.home()))).repos(
+                Arrays.<Coordinates>asList(
+                    new Coordinates.Simple("jcabi/jcabi-github"),
+                    new Coordinates.Simple("jcabi/none")
+                )
+            );
+            Assert.fail("A missing repo must fail the batch");
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(),
+                Matchers.containsString("Could not resolve to a Repository with the name 'jcabi/none'.")
+            );
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * RtBatch can report an issue that doesn't exist.
+     */
+    @Test
+    public void reportsIssueNotFound() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"data\":{\"r0\":{\"issue\":null}}}"))
+            .start();
+        try {
+            final Github github = new RtGithub(new JdkRequest(container.home()));
+            new RtBatch(github).issues(
+                github.repos().get(new Coordinates.Simple("jcabi/jcabi-github")), Collections.singletonList(1)
+            );
+            Assert.fail("A missing issue must fail the batch");
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(),
+                Matchers.equalTo(
+                    "Not found: repository(owner: \"jcabi\", name: \"jcabi-github\") "
+                        + "{ issue(number: 1) { number title body state url } } (no errors reported)"
+                )
+            );
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * RtBatch can report an answer without data, with its GraphQL errors.
+     */
+    @Test
+    public void reportsMissingData() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"data\":null,\"errors\":[{\"message\":\"Bad credentials\"}]}"))
+            .start();
+        try {
+            final Github github = new RtGithub(new JdkRequest(container.home()));
+            new RtBatch(github).issues(
+                github.repos().get(new Coordinates.Simple("jcabi/jcabi-github")), Collections.singletonList(1)
+            );
+            Assert.fail("An answer without data must fail the batch");
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(ex.getMessage(), Matchers.equalTo("GraphQL query failed: Bad credentials"));
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * RtBatch can give the fields it asks for without a request, and the others by REST.
+     */
+    @Test
+    public void fetchesOtherFieldsByRest() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"data\":{\"r0\":{\"description\":\"first\"}}}"))
+            .next(new MkAnswer.Simple("{\"description\":\"first\",\"created_at\":\"2011-01-26T19:01:12Z\"}"))
+            .start();
+        try {
+            final Repo repo = new RtBatch(new RtGithub(new JdkRequest(container.home()))).repos(
+                Collections.<Coordinates>singletonList(new Coordinates.Simple("jcabi/jcabi-github"))
+            ).get(0);
+            MatcherAssert.assertThat(new Repo.Smart(repo).description(), Matchers.equalTo("first"));
+            MatcherAssert.assertThat(container.queries(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(
+                repo.json().getString("created_at"),
+                Matchers.equalTo("2011-01-26T19:01:12Z")
+            );
+            MatcherAssert.assertThat(container.queries(), Matchers.equalTo(2));
+            container.take();
+            MatcherAssert.assertThat(
+                container.take().uri().getPath(),
+                Matchers.equalTo("/repos/jcabi/jcabi-github")
+            );
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * RtBatch can find the GraphQL endpoint of a GitHub Enterprise entry.
+     */
+    @Test
+    public void findsEnterpriseEndpoint() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"data\":{\"r0\":{\"description\":\"first\"}}}"))
+            .start();
+        try {
+            new RtBatch(new RtGithub(new JdkRequest(container.home().resolve("/api/v3")))).repos(
+                Collections.<Coordinates>singletonList(new Coordinates.Simple("jcabi/jcabi-github"))
+            );
+            MatcherAssert.assertThat(container.take().uri().getPath(), Matchers.equalTo("/api/graphql"));
+        } finally {
+            container.stop();
+        }
+    }
+}
+
+// test of RtPrefetchPagination, against a local stand-in server
+public final class RtPrefetchPaginationTest {
+
+    /*
+     * RtPrefetchPagination can parse all links of a Link header.
+     */
+    @Test
+    public void parsesLinks() throws Exception {
+        final Map<String, String> links = RtPrefetchPagination.links(
+            new DefaultResponse(
+                Mockito.mock(Request.class),
+                HttpURLConnection.HTTP_OK,
+                Collections.singletonMap(
+                    "Link",
+                    Collections.singletonList(
+                        "<https://api.github.com/repositories/1/issues?page=2>; rel=\"next\", "
+                            + "<https://api.github.com/repositories/1/issues?page=34>; rel=\"last\""
+                    )
+                ),
+                new byte[0]
+            )
+        );
+        MatcherAssert.assertThat(
+            links,
+            Matchers.allOf(
+                Matchers.hasEntry("next", "https://api.github.com/repositories/1/issues?page=2"),
+                Matchers.hasEntry("last", "https://api.github.com/repositories/1/issues?page=34")
+            )
+        );
+        MatcherAssert.assertThat(
+            RtPrefetchPagination.range(links.get("next"), links.get("last")),
+            Matchers.hasSize(33)
+        );
+    }
+
+    /*
+     * RtPrefetchPagination can return items in the order of pages, however the pages arrive,
+     * and fetch nothing until it's asked for the first item.
+     */
+    @Test
+    public void keepsOrderOfPages() throws Exception {
+        final Pattern page = Pattern.compile("page=(\\d+)");
+        final AtomicReference<URI> home = new AtomicReference<URI>();
+        final MkLoadContainer container = new MkLoadContainer(
+            (method, path) -> {
+                final Matcher matcher = page.matcher(path);
+                final int num;
+                if (matcher.find()) {
+                    num = Integer.parseInt(matcher.group(1));
+                } else {
+                    num = 1;
+                }
+                final JsonArrayBuilder items = Json.createArrayBuilder();
+                for (int idx = 0; idx < 3; ++idx) {
+                    items.add(Json.createObjectBuilder().add("n", (num - 1) * 3 + idx));
+                }
+                return new MkAnswer.Simple(items.build().toString()).withHeader(
+                    "Link",
+                    String.format(
+                        "<%s?page=%d>; rel=\"next\", <%s?page=9>; rel=\"last\"",
+                        home.get(), Math.min(num + 1, 9), home.get()
+                    )
+                );
+            },
+            new MkLoadContainer.Exponential(0L, 20L),
+            (method, path, rnd) -> null
+        ).start(0);
+        try {
+            home.set(container.home());
+            final Iterator<Integer> iterator = new RtPrefetchPagination<Integer>(
+                new JdkRequest(container.home()),
+                json -> json.getInt("n")
+            ).iterator();
+            MatcherAssert.assertThat(container.served(), Matchers.equalTo(0L));
+            final List<Integer> all = new ArrayList<Integer>(27);
+            iterator.forEachRemaining(all::add);
+            final List<Integer> expected = new ArrayList<Integer>(27);
+            for (int idx = 0; idx < 27; ++idx) {
+                expected.add(idx);
+            }
+            MatcherAssert.assertThat(all, Matchers.equalTo(expected));
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * RtPrefetchPagination can return all items before a failed page, and fail only when that page is reached.
+     */
+    @Test
+    public void failsAtFailedPage() throws Exception {
+        final Pattern page = Pattern.compile("page=(\\d+)");
+        final AtomicReference<URI> home = new AtomicReference<URI>();
+        final MkLoadContainer container = new MkLoadContainer(
+            (method, path) -> {
+                final Matcher matcher = page.matcher(path);
+                final int num;
+                if (matcher.find()) {
+                    num = Integer.parseInt(matcher.group(1));
+                } else {
+                    num = 1;
+                }
+                final MkAnswer answer;
+                if (num == 3) {
+                    answer = new MkAnswer.Simple(HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+                } else {
+                    final JsonArrayBuilder items = Json.createArrayBuilder();
+                    for (int idx = 0; idx < 3; ++idx) {
+                        items.add(Json.createObjectBuilder().add("n", (num - 1) * 3 + idx));
+                    }
+                    answer = new MkAnswer.Simple(items.build().toString()).withHeader(
+                        "Link", String.format("<%s?page=%d>; rel=\"next\"", home.get(), num + 1)
+                    );
+                }
+                return answer;
+            },
+            new MkLoadContainer.Exponential(0L, 0L),
+            (method, path, rnd) -> null
+        ).start(0);
+        try {
+            home.set(container.home());
+            final Iterator<Integer> iterator = new RtPrefetchPagination<Integer>(
+                new JdkRequest(container.home()),
+                json -> json.getInt("n")
+            ).iterator();
+            final List<Integer> all = new ArrayList<Integer>(6);
+            try {
+                iterator.forEachRemaining(all::add);
+                Assert.fail("A failed page must fail the iteration");
+            } catch (final CompletionException ex) {
+                MatcherAssert.assertThat(all, Matchers.contains(0, 1, 2, 3, 4, 5));
+            }
+        } finally {
+            container.stop();
+        }
+    }
+}
+
+// test of RtJson, against a local stand-in server
+public final class RtJsonTest {
+
+    /*
+     * Temporary folder.
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /*
+     * RtJson can revalidate with the ETag it got and answer a 304 with the JSON it kept.
+     */
+    @Test
+    public void revalidatesWithEtag() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"title\":\"first\"}").withHeader(HttpHeaders.ETAG, "W/\"a1b2\""))
+            .next(new MkAnswer.Simple(HttpURLConnection.HTTP_NOT_MODIFIED, ""))
+            .start();
+        try {
+            final RtJson json = new RtJson(new JdkRequest(container.home()), new MemoryEtags(10));
+            json.fetch();
+            MatcherAssert.assertThat(json.fetch().getString("title"), Matchers.equalTo("first"));
+            MatcherAssert.assertThat(
+                container.take().headers().containsKey(HttpHeaders.IF_NONE_MATCH),
+                Matchers.is(false)
+            );
+            MatcherAssert.assertThat(
+                container.take().headers().get(HttpHeaders.IF_NONE_MATCH),
+                Matchers.hasItem("W/\"a1b2\"")
+            );
+        } finally {
+            container.stop();
+        }
+    }
+
+    /*
+     * MemoryEtags can spill the least recently used ones and find them again.
+     */
+    @Test
+    public void spillsToDisk() throws Exception {
+        final Etags etags = new MemoryEtags(1, new DiskEtags(this.temp.newFolder().toPath()));
+        etags.put("/a", new Etags.Tagged("\"a\"", Json.createObjectBuilder().add("n", 1).build()));
+        etags.put("/b", new Etags.Tagged("\"b\"", Json.createObjectBuilder().add("n", 2).build()));
+        MatcherAssert.assertThat(etags.get("/a").etag(), Matchers.equalTo("\"a\""));
+        MatcherAssert.assertThat(etags.get("/b").json().getInt("n"), Matchers.equalTo(2));
+    }
+
+    /*
+     * DiskEtags can take a truncated or corrupt file for a miss, and delete it.
+     */
+    @Test
+    public void dropsCorruptFiles() throws Exception {
+        final Path dir = this.temp.newFolder().toPath();
+        final Etags etags = new DiskEtags(dir);
+        etags.put("/a", new Etags.Tagged("\"a\"", Json.createObjectBuilder().add("n", 1).build()));
+        etags.put("/b", new Etags.Tagged("\"b\"", Json.createObjectBuilder().add("n", 2).build()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (final Path file : files) {
+                final String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                Files.write(file, text.substring(0, text.length() / 2).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        MatcherAssert.assertThat(etags.get("/a"), Matchers.nullValue());
+        MatcherAssert.assertThat(etags.get("/b"), Matchers.nullValue());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            MatcherAssert.assertThat(files.iterator().hasNext(), Matchers.is(false));
+        }
+    }
+
+    /*
+     * RtJson can keep ETags of other credentials apart, even in the same store.
+     */
+    @Test
+    public void keepsCredentialsApart() throws Exception {
+        final MkContainer container = new MkGrizzlyContainer()
+            .next(new MkAnswer.Simple("{\"title\":\"alice\"}").withHeader(HttpHeaders.ETAG, "W/\"a1b2\""))
+            .next(new MkAnswer.Simple("{\"title\":\"bob\"}").withHeader(HttpHeaders.ETAG, "W/\"c3d4\""))
+            .start();
+        try {
+            final Etags etags = new MemoryEtags(10);
+            final Request request = new JdkRequest(container.home());
+            new RtJson(request.header(HttpHeaders.AUTHORIZATION, "token alice"), etags).fetch();
+            MatcherAssert.assertThat(
+                new RtJson(request.header(HttpHeaders.AUTHORIZATION, "token bob"), etags).fetch().getString("title"),
+                Matchers.equalTo("bob")
+            );
+            container.take();
+            MatcherAssert.assertThat(
+                container.take().headers().containsKey(HttpHeaders.IF_NONE_MATCH),
+                Matchers.is(false)
+            );
+        } finally {
+            container.stop();
+        }
     }
 }
- 